@@ -0,0 +1,522 @@
+/*
+ * Copyright 2016-2018, Michael Büchner <m.buechner@dnb.de>
+ * Deutsche Digitale Bibliothek
+ * c/o Deutsche Nationalbibliothek
+ * Informationsinfrastruktur
+ * Adickesallee 1, D-60322 Frankfurt am Main
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.ddb.efdump;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits a single GND Turtle dump into chunks and parses the chunks in
+ * parallel. Every chunk is prefixed with the directives ({@code @prefix},
+ * {@code PREFIX}, ...) read so far, so it can be parsed on its own. The
+ * triples are handed out in document order.
+ *
+ * A chunk only ends where a line starts at column 0, outside of strings, IRIs
+ * and comments, after a line ending with the {@code .} of a statement, and
+ * with a different subject than that statement. This keeps the records of the
+ * GND dumps, which are written one subject per statement, together. It does
+ * not parse the Turtle grammar, so dumps written differently may still be
+ * split within a subject.
+ *
+ * Plain {@code *.ttl} files are memory-mapped. GZipped files can only be
+ * inflated sequentially, so the reading thread inflates and splits the
+ * stream while the chunks are parsed in parallel.
+ *
+ * Any read or parse error is thrown from {@link #hasNext()} as
+ * {@link RiotException}.
+ *
+ * @author buechner
+ */
+public class EFDChunkedParser implements Runnable, Iterator<Triple> {
+
+    private final static int CHUNKSIZE = 2 * 1024 * 1024; // bytes
+    private final static int WINDOWSIZE = 64 * CHUNKSIZE; // bytes mapped at once
+    private final static int BUFFERSIZE = 64 * 1024; // bytes
+    private final static int MAXCHUNKS = 8; // chunks in memory at the same time
+    private final static int PARSERTHREADS = Math.min(Runtime.getRuntime().availableProcessors(), MAXCHUNKS);
+    private final static ForkJoinPool PARSER_POOL = new ForkJoinPool(PARSERTHREADS);
+    private final static ForkJoinTask<List<Triple>> END = ForkJoinTask.adapt(() -> Collections.<Triple>emptyList()); // never run
+
+    private static final Logger LOG = LoggerFactory.getLogger(EFDChunkedParser.class);
+
+    private final File dumpFile;
+    private final BlockingQueue<ForkJoinTask<List<Triple>>> chunks = new LinkedBlockingQueue<>(); // in document order
+    private final Semaphore permits = new Semaphore(MAXCHUNKS);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final BoundaryScanner scanner = new BoundaryScanner();
+    private int chunkCount = 0;
+
+    private Iterator<Triple> current = Collections.emptyIterator();
+    private boolean finished = false;
+
+    public EFDChunkedParser(File dumpFile) {
+        this.dumpFile = dumpFile;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (dumpFile.getName().toLowerCase(Locale.GERMAN).endsWith(".gz")) {
+                splitGZipped();
+            } else {
+                splitMapped();
+            }
+            LOG.info("Split {} into {} chunks.", dumpFile, chunkCount);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            fail(ex);
+        } catch (Throwable ex) {
+            fail(ex);
+        } finally {
+            chunks.add(END);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            final ForkJoinTask<List<Triple>> task;
+            try {
+                task = chunks.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+                throw abort();
+            }
+            final List<Triple> chunk = task == END ? null : task.join();
+            if (failure.get() != null) {
+                throw abort();
+            }
+            if (chunk == null) {
+                finished = true;
+                return false;
+            }
+            permits.release();
+            current = chunk.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Triple next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private RiotException abort() {
+        finished = true;
+        current = Collections.emptyIterator();
+        permits.release(MAXCHUNKS); // wake up the reading thread, so it can stop
+        final Throwable ex = failure.get();
+        return new RiotException("Could not read " + dumpFile + ". " + ex.getLocalizedMessage(), ex);
+    }
+
+    /**
+     * Keeps the first error, which is thrown by {@link #hasNext()}.
+     */
+    private void fail(Throwable ex) {
+        failure.compareAndSet(null, ex);
+    }
+
+    private void splitMapped() throws IOException, InterruptedException {
+        try (final FileChannel fc = FileChannel.open(dumpFile.toPath(), StandardOpenOption.READ)) {
+            final long size = fc.size();
+            long windowStart = 0;
+            ByteBuffer window = fc.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOWSIZE));
+            int start = 0; // chunk start within the window
+            byte[] prologue = new byte[0];
+
+            while (true) {
+                final boolean last = windowStart + window.limit() == size;
+                final int boundary = scanner.scan(window, window.limit(), last, start + CHUNKSIZE);
+                if (boundary > 0) {
+                    submit(slice(window, start, boundary), prologue, windowStart + start);
+                    prologue = scanner.getDirectives();
+                    start = boundary;
+                    continue;
+                }
+                if (last) {
+                    if (start < window.limit()) {
+                        submit(slice(window, start, window.limit()), prologue, windowStart + start);
+                    }
+                    break;
+                }
+                if (start == 0) {
+                    throw new IOException("No subject boundary found in " + dumpFile + " within " + WINDOWSIZE + " bytes after byte " + windowStart);
+                }
+                // map the next window from the unfinished chunk on and go on scanning where we stopped
+                scanner.shift(-start);
+                windowStart += start;
+                start = 0;
+                window = fc.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(size - windowStart, WINDOWSIZE));
+            }
+        }
+    }
+
+    private void splitGZipped() throws IOException, InterruptedException {
+        try (final InputStream fis = new FileInputStream(dumpFile);
+                final GZIPInputStream gzip = new GZIPInputStream(fis, BUFFERSIZE)) {
+            byte[] buf = new byte[2 * CHUNKSIZE];
+            int filled = fill(gzip, buf, 0);
+            boolean eof = filled < buf.length;
+            int start = 0; // chunk start within the buffer
+            long offset = 0; // uncompressed offset, only for error messages
+            byte[] prologue = new byte[0];
+
+            while (true) {
+                final int boundary = scanner.scan(ByteBuffer.wrap(buf), filled, eof, start + CHUNKSIZE);
+                if (boundary > 0) {
+                    submit(ByteBuffer.wrap(Arrays.copyOfRange(buf, start, boundary)), prologue, offset);
+                    prologue = scanner.getDirectives();
+                    offset += boundary - start;
+                    start = boundary;
+                    continue;
+                }
+                if (eof) {
+                    if (start < filled) {
+                        submit(ByteBuffer.wrap(Arrays.copyOfRange(buf, start, filled)), prologue, offset);
+                    }
+                    break;
+                }
+                if (start > 0) {
+                    // move the unfinished chunk to the front
+                    System.arraycopy(buf, start, buf, 0, filled - start);
+                    filled -= start;
+                    scanner.shift(-start);
+                    start = 0;
+                }
+                if (filled == buf.length) {
+                    if (buf.length >= WINDOWSIZE) {
+                        throw new IOException("No subject boundary found in " + dumpFile + " within " + WINDOWSIZE + " bytes after byte " + offset);
+                    }
+                    // one chunk without a subject boundary, read more
+                    buf = Arrays.copyOf(buf, 2 * buf.length);
+                }
+                filled += fill(gzip, buf, filled);
+                eof = filled < buf.length;
+            }
+        }
+    }
+
+    private void submit(final ByteBuffer chunk, final byte[] prologue, final long offset) throws IOException, InterruptedException {
+        permits.acquire();
+        if (failure.get() != null) {
+            throw new IOException("Stopped reading " + dumpFile + " at byte " + offset);
+        }
+        ++chunkCount;
+        chunks.add(PARSER_POOL.submit(() -> {
+            final List<Triple> triples = new ArrayList<>();
+            try (final InputStream in = new SequenceInputStream(new ByteArrayInputStream(prologue), new ByteBufferInputStream(chunk))) {
+                RDFDataMgr.parse(new StreamRDFBase() {
+                    @Override
+                    public void triple(Triple triple) {
+                        triples.add(triple);
+                    }
+                }, in, Lang.TTL);
+            } catch (Throwable ex) {
+                fail(new IOException("Could not parse chunk at byte " + offset + ". " + ex.getLocalizedMessage(), ex));
+            }
+            return triples;
+        }));
+    }
+
+    private static ByteBuffer slice(ByteBuffer buf, int from, int to) {
+        final ByteBuffer dup = buf.duplicate();
+        dup.limit(to);
+        dup.position(from);
+        return dup.slice();
+    }
+
+    /**
+     * @return number of bytes read, less than requested only at the end of
+     * the stream
+     */
+    private static int fill(InputStream in, byte[] buf, int from) throws IOException {
+        int pos = from;
+        while (pos < buf.length) {
+            final int read = in.read(buf, pos, buf.length - pos);
+            if (read < 0) {
+                break;
+            }
+            pos += read;
+        }
+        return pos - from;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Finds chunk boundaries in a Turtle document, which is handed in piece
+     * by piece. Keeps track of strings, IRIs and comments, the subject of the
+     * last statement and all directives read so far.
+     */
+    static class BoundaryScanner {
+
+        private final static int NORMAL = 0;
+        private final static int IRI = 1;
+        private final static int STRING = 2;
+        private final static int LONGSTRING = 3;
+        private final static int COMMENT = 4;
+
+        private final ByteArrayOutputStream directives = new ByteArrayOutputStream();
+        private int state = NORMAL;
+        private byte quote;
+        private int pos = 0;
+        private boolean lineStart = true;
+        private boolean statementEnded = false;
+        private int directiveStart = -1;
+        private byte[] subject = new byte[0];
+
+        /**
+         * Scans buf from where the last call stopped.
+         *
+         * @param buf the document
+         * @param limit end of the bytes available in buf
+         * @param eof whether limit is the end of the document
+         * @param minBoundary no boundary is returned before this index
+         * @return index of the next boundary or -1 if more bytes are needed
+         */
+        int scan(ByteBuffer buf, int limit, boolean eof, int minBoundary) {
+            while (pos < limit) {
+                final byte b = buf.get(pos);
+                if (!eof && pos + 1 >= limit) {
+                    return -1; // escapes and the statement end need the next byte
+                }
+                switch (state) {
+                    case NORMAL:
+                        if (lineStart && !isBlank(b) && b != '#') {
+                            final int end = tokenEnd(buf, pos, limit);
+                            if (end < 0 && !eof) {
+                                return -1;
+                            }
+                            final byte[] token = copy(buf, pos, end < 0 ? limit : end);
+                            if (isDirective(token)) {
+                                directiveStart = pos;
+                            } else if (statementEnded) {
+                                final boolean newSubject = !Arrays.equals(token, subject);
+                                subject = token;
+                                if (newSubject && pos >= minBoundary) {
+                                    lineStart = false;
+                                    return pos;
+                                }
+                            }
+                        }
+                        lineStart = false;
+                        if (b == '\n') {
+                            lineStart = true;
+                            if (directiveStart >= 0) {
+                                directives.write(copy(buf, directiveStart, pos + 1), 0, pos + 1 - directiveStart);
+                                directiveStart = -1;
+                            }
+                        } else if (b == '#') {
+                            state = COMMENT;
+                        } else if (!isBlank(b)) {
+                            // prefixed names and numbers can't end with '.', so this ends a statement
+                            statementEnded = b == '.';
+                            if (b == '<') {
+                                state = IRI;
+                            } else if (b == '"' || b == '\'') {
+                                final int run = quoteRun(buf, pos, limit, b);
+                                if (run < 0 && !eof) {
+                                    return -1;
+                                }
+                                quote = b;
+                                if (run >= 3) {
+                                    state = LONGSTRING;
+                                    pos += 3;
+                                    continue;
+                                } else if (run == 2) {
+                                    pos += 2; // empty string
+                                    continue;
+                                }
+                                state = STRING;
+                            }
+                        }
+                        ++pos;
+                        break;
+                    case IRI:
+                        if (b == '>' || b == '\n') {
+                            state = NORMAL;
+                            lineStart = b == '\n';
+                        }
+                        ++pos;
+                        break;
+                    case STRING:
+                        if (b == '\\') {
+                            pos += 2;
+                            break;
+                        }
+                        if (b == quote || b == '\n') {
+                            state = NORMAL;
+                            lineStart = b == '\n';
+                        }
+                        ++pos;
+                        break;
+                    case LONGSTRING:
+                        if (b == '\\') {
+                            pos += 2;
+                        } else if (b == quote) {
+                            final int run = quoteRun(buf, pos, limit, b);
+                            if (run < 0 && !eof) {
+                                return -1;
+                            }
+                            pos += run < 0 ? limit - pos : run;
+                            if (run >= 3 || run < 0) {
+                                state = NORMAL; // the last three quotes close the string
+                            }
+                        } else {
+                            ++pos;
+                        }
+                        break;
+                    default: // COMMENT
+                        if (b == '\n') {
+                            state = NORMAL; // the line end is handled there
+                        } else {
+                            ++pos;
+                        }
+                        break;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Moves all positions, after the bytes in front of the current chunk
+         * have been dropped.
+         */
+        void shift(int delta) {
+            pos += delta;
+            if (directiveStart >= 0) {
+                directiveStart += delta;
+            }
+        }
+
+        /**
+         * @return all directives read so far
+         */
+        byte[] getDirectives() {
+            return directives.toByteArray();
+        }
+
+        /**
+         * @return index of the first blank after pos or -1
+         */
+        private static int tokenEnd(ByteBuffer buf, int pos, int limit) {
+            for (int i = pos; i < limit; ++i) {
+                if (isBlank(buf.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return number of quotes in a row from pos on or -1 if they reach
+         * limit
+         */
+        private static int quoteRun(ByteBuffer buf, int pos, int limit, byte quote) {
+            int i = pos;
+            while (i < limit && buf.get(i) == quote) {
+                ++i;
+            }
+            return i < limit ? i - pos : -1;
+        }
+
+        private static byte[] copy(ByteBuffer buf, int from, int to) {
+            final byte[] bytes = new byte[to - from];
+            for (int i = from; i < to; ++i) {
+                bytes[i - from] = buf.get(i);
+            }
+            return bytes;
+        }
+
+        private static boolean isDirective(byte[] token) {
+            final String keyword = new String(token, StandardCharsets.US_ASCII);
+            return keyword.equalsIgnoreCase("@prefix") || keyword.equalsIgnoreCase("@base")
+                    || keyword.equalsIgnoreCase("PREFIX") || keyword.equalsIgnoreCase("BASE");
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buf;
+
+        ByteBufferInputStream(ByteBuffer buf) {
+            this.buf = buf.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buf.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+    }
+}
@@ -22,10 +22,8 @@ import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
 import com.github.jsonldjava.shaded.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import static java.net.HttpURLConnection.setFollowRedirects;
 import java.nio.charset.Charset;
@@ -46,13 +44,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPInputStream;
 import org.apache.jena.graph.Triple;
-import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
-import org.apache.jena.riot.lang.PipedRDFIterator;
-import org.apache.jena.riot.lang.PipedRDFStream;
-import org.apache.jena.riot.lang.PipedTriplesStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -189,25 +181,12 @@ public class EFDExecutor {
 
         for (File dumpFile : GND_DUMPS_TTL) {
 
-            final PipedRDFIterator<Triple> iter = new PipedRDFIterator<>();
-            final PipedRDFStream<Triple> is = new PipedTriplesStream(iter);
-
-            // Create a runnable for our parser thread
-            final Runnable parser = new Runnable() {
-                @Override
-                public void run() {
-                    LOG.info("Start reading {} ({} of {})...", dumpFile.getAbsolutePath(), Arrays.asList(GND_DUMPS_TTL).indexOf(dumpFile) + 1, GND_DUMPS_TTL.length);
-                    try (final InputStream fis = new FileInputStream(dumpFile);
-                            final GZIPInputStream gzip = new GZIPInputStream(fis)) {
-                        RDFDataMgr.parse(is, gzip, Lang.TTL);
-                    } catch (IOException ex) {
-                        LOG.error(ex.getLocalizedMessage(), ex);
-                    }
-                }
-            };
+            // splits the dump into chunks and parses them in parallel
+            final EFDChunkedParser iter = new EFDChunkedParser(dumpFile);
 
             // Start the parser on another thread
-            conExSe.submit(parser);
+            LOG.info("Start reading {} ({} of {})...", dumpFile.getAbsolutePath(), Arrays.asList(GND_DUMPS_TTL).indexOf(dumpFile) + 1, GND_DUMPS_TTL.length);
+            conExSe.submit(iter);
 
             int i = 0;
             int j = 0;
@@ -298,26 +277,12 @@ public class EFDExecutor {
             // do it for every dump file
             for (File dumpFile : GND_DUMPS_TTL) {
 
-                // add parsers
-                final PipedRDFIterator<Triple> iter = new PipedRDFIterator<>();
-                final PipedRDFStream<Triple> is = new PipedTriplesStream(iter);
-
-                final Runnable processor = new Runnable() {
-                    @Override
-                    public void run() {
-
-                        try (final InputStream fis = new FileInputStream(dumpFile);
-                                final GZIPInputStream gzip = new GZIPInputStream(fis)) {
-                            LOG.info("Start precessing {} ({} of {})...", dumpFile.getAbsolutePath(), Arrays.asList(GND_DUMPS_TTL).indexOf(dumpFile) + 1, GND_DUMPS_TTL.length);
-                            RDFDataMgr.parse(is, gzip, Lang.TTL);
-                        } catch (IOException ex) {
-                            LOG.error(ex.getLocalizedMessage(), ex);
-                        }
-                    }
-                };
+                // add parsers, all triples of a subject stay together
+                final EFDChunkedParser iter = new EFDChunkedParser(dumpFile);
 
                 // Start the processor on another thread
-                conExSe.submit(processor);
+                LOG.info("Start precessing {} ({} of {})...", dumpFile.getAbsolutePath(), Arrays.asList(GND_DUMPS_TTL).indexOf(dumpFile) + 1, GND_DUMPS_TTL.length);
+                conExSe.submit(iter);
 
                 int i = 0;
                 int j = 0;
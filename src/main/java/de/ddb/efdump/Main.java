@@ -33,6 +33,7 @@ import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.jena.riot.RiotException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,7 +48,7 @@ public class Main {
         boolean dump = true;
 
         final Options options = new Options();
-        options.addOption("i", true, "Folder with GND Turtle Dump(s) as GZipped File(s) (file name pattern is '*.ttl.gz'). Default: " + gndDumpsFolder);
+        options.addOption("i", true, "Folder with GND Turtle Dump(s) as plain or GZipped File(s) (file name pattern is '*.ttl' or '*.ttl.gz'). Default: " + gndDumpsFolder);
         options.addOption("l", true, "Language(s) to dump (comma for separation, e.g. de-DE,en-US). Default: de-DE");
         options.addOption("m", true, "Mode. Can be 'beacon' (create BEACON file) or 'dump' (dump Entity Facts data from service). Default: dump");
         options.addOption("o", true, "File name of output file. Default: " + outputFile);
@@ -92,18 +93,19 @@ public class Main {
         final File[] files = dir.listFiles(new FilenameFilter() {
             @Override
             public boolean accept(File dir, String name) {
-                return name.toLowerCase(Locale.GERMAN).endsWith(".ttl.gz");
+                final String lower = name.toLowerCase(Locale.GERMAN);
+                return lower.endsWith(".ttl") || lower.endsWith(".ttl.gz");
             }
         });
 
         if (files == null || files.length < 1) {
-            LOG.error("No GND Turtle Dump as GZipped File in {} found.", gndDumpsFolder);
+            LOG.error("No GND Turtle Dump as plain or GZipped File in {} found.", gndDumpsFolder);
             exit(1);
         }
         
         LOG.info("Start with the folowing parameter...");
         LOG.info("Mode: {}", (dump?"dump":"beacon"));
-        LOG.info("GND Turtle Dump(s) as GZipped File(s): {}",  Arrays.toString(files));
+        LOG.info("GND Turtle Dump(s): {}",  Arrays.toString(files));
         LOG.info("File name of output file: {}", outputFile);
         LOG.info("Language(s) to dump: {}", EFDExecutor.LANGUAGES);       
         
@@ -114,7 +116,7 @@ public class Main {
             } else {
                 exe.makeBeacon();
             }
-        } catch (IOException ex) {
+        } catch (IOException | RiotException ex) {
             LOG.error(ex.getMessage(), ex);
             exit(1);
         }